@@ -0,0 +1,21 @@
+package com.example.retail.config;
+
+import com.example.retail.limiter.LoadSheddingInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  private final LoadSheddingInterceptor loadShedding;
+
+  public WebConfig(LoadSheddingInterceptor loadShedding) {
+    this.loadShedding = loadShedding;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(loadShedding).addPathPatterns("/api/loyalty/discount");
+  }
+}
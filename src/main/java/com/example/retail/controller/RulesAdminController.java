@@ -0,0 +1,71 @@
+package com.example.retail.controller;
+
+import com.example.retail.generated.api.RulesAdminApi;
+import com.example.retail.generated.model.CompiledRuleVersion;
+import com.example.retail.generated.model.ScheduledRuleVersion;
+import com.example.retail.rules.DecisionTableManager;
+import com.example.retail.rules.RuleHistory;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+// Unauthenticated and on the public port: only enable where /admin is reachable from a trusted
+// network alone (e.g. blocked at the gateway or load balancer)
+@RestController
+@ConditionalOnProperty(name = "rules.admin.enabled", havingValue = "true")
+public class RulesAdminController implements RulesAdminApi {
+
+  private final DecisionTableManager decisionTableManager;
+
+  public RulesAdminController(DecisionTableManager decisionTableManager) {
+    this.decisionTableManager = decisionTableManager;
+  }
+
+  @Override
+  public ResponseEntity<List<ScheduledRuleVersion>> getRuleSchedule() {
+    return ResponseEntity.ok()
+        .body(
+            decisionTableManager.getSchedule().stream()
+                .map(
+                    v ->
+                        new ScheduledRuleVersion()
+                            .key(v.key())
+                            .etag(v.eTag())
+                            .effectiveAt(v.effectiveAt().atOffset(ZoneOffset.UTC))
+                            .status(v.status().name())
+                            .error(v.error())
+                            .failures(v.failures())
+                            .retryAt(
+                                v.retryAt() != null ? v.retryAt().atOffset(ZoneOffset.UTC) : null))
+                .toList());
+  }
+
+  @Override
+  public ResponseEntity<List<CompiledRuleVersion>> listRuleVersions() {
+    return ResponseEntity.ok()
+        .body(decisionTableManager.getHistory().stream().map(this::toCompiledVersion).toList());
+  }
+
+  @Override
+  public ResponseEntity<CompiledRuleVersion> activateRuleVersion(String etag) {
+    return ResponseEntity.ok().body(toCompiledVersion(decisionTableManager.activate(etag)));
+  }
+
+  @Override
+  public ResponseEntity<Void> unpinRuleVersion() {
+    decisionTableManager.unpin();
+    return ResponseEntity.noContent().build();
+  }
+
+  private CompiledRuleVersion toCompiledVersion(RuleHistory.CompiledVersion v) {
+    return new CompiledRuleVersion()
+        .etag(v.etag())
+        .key(v.key())
+        .activatedAt(v.activatedAt().atOffset(ZoneOffset.UTC))
+        .rules(v.rules())
+        .serving(v.base() == decisionTableManager.getKieBase())
+        .pinned(v.etag() != null && v.etag().equals(decisionTableManager.getPinned()));
+  }
+}
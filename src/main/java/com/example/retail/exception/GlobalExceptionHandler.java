@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import java.time.OffsetDateTime;
 import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -47,6 +48,14 @@ public class GlobalExceptionHandler {
     return build(HttpStatus.NOT_FOUND, ex.getMessage(), req);
   }
 
+  /* 404 rule version not held for rollback */
+  @ExceptionHandler(RuleVersionNotFoundException.class)
+  ResponseEntity<ErrorResponse> handleNoVersion(
+      RuleVersionNotFoundException ex, HttpServletRequest req) {
+
+    return build(HttpStatus.NOT_FOUND, ex.getMessage(), req);
+  }
+
   /* 409 Domain conflict etc. */
   @ExceptionHandler(IllegalStateException.class)
   ResponseEntity<ErrorResponse> handleConflict(IllegalStateException ex, HttpServletRequest req) {
@@ -54,6 +63,17 @@ public class GlobalExceptionHandler {
     return build(HttpStatus.CONFLICT, ex.getMessage(), req);
   }
 
+  /* 503 shed by the concurrency limiter */
+  @ExceptionHandler(ServiceOverloadedException.class)
+  ResponseEntity<ErrorResponse> handleOverloaded(
+      ServiceOverloadedException ex, HttpServletRequest req) {
+
+    ResponseEntity<ErrorResponse> res = build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req);
+    return ResponseEntity.status(res.getStatusCode())
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(res.getBody());
+  }
+
   /* 500 catch-all */
   @ExceptionHandler(Exception.class)
   ResponseEntity<ErrorResponse> handleAny(Exception ex, HttpServletRequest req) {
@@ -0,0 +1,8 @@
+package com.example.retail.exception;
+
+/** Thrown when an admin asks for a compiled rule version that is not held in memory. */
+public class RuleVersionNotFoundException extends RuntimeException {
+  public RuleVersionNotFoundException(String msg) {
+    super(msg);
+  }
+}
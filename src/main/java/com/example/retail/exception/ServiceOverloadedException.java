@@ -0,0 +1,16 @@
+package com.example.retail.exception;
+
+/** Thrown when the concurrency limiter sheds a request; mapped to 503 with Retry-After. */
+public class ServiceOverloadedException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public ServiceOverloadedException(String msg, long retryAfterSeconds) {
+    super(msg);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.retail.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * AIMD concurrency limit driven by queueing and request latency. A caller waits for a slot for at
+ * most the target queue time; if none frees up it is shed and the limit backs off
+ * multiplicatively. The limit also backs off when recent request latency exceeds {@code
+ * latencyTolerance} times the baseline, e.g. while a rule reload competes for CPU. Back-offs
+ * happen at most once per target window. When the limit is saturated, slots are still granted
+ * well inside the target and latency is within tolerance, the limit grows by one.
+ *
+ * <p>Latency is tracked as two moving averages: a short one over roughly the last {@value
+ * #SHORT_WINDOW} requests, and a baseline that follows it down at once but up only over roughly
+ * {@value #LONG_WINDOW} requests, so sustained slowdowns register as congestion.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double BACKOFF = 0.9;
+  static final int SHORT_WINDOW = 10;
+  static final int LONG_WINDOW = 500;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long targetQueueNanos;
+  private final double latencyTolerance;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private volatile int limit;
+  private volatile int inFlight;
+  private long lastBackoff = System.nanoTime();
+  private double shortLatency; // guarded by lock; 0 until the first sample
+  private double baselineLatency; // guarded by lock
+
+  @Autowired
+  public AdaptiveConcurrencyLimiter(
+      @Value("${limiter.min-limit:4}") int minLimit,
+      @Value("${limiter.max-limit:200}") int maxLimit,
+      @Value("${limiter.initial-limit:20}") int initialLimit,
+      @Value("${limiter.target-queue-ms:50}") long targetQueueMs,
+      @Value("${limiter.latency-tolerance:2.0}") double latencyTolerance) {
+    if (minLimit < 1 || maxLimit < minLimit)
+      throw new IllegalArgumentException("limiter requires 1 <= min-limit <= max-limit");
+    if (latencyTolerance <= 1)
+      throw new IllegalArgumentException("limiter.latency-tolerance must be > 1");
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.targetQueueNanos = TimeUnit.MILLISECONDS.toNanos(targetQueueMs);
+    this.latencyTolerance = latencyTolerance;
+  }
+
+  /** Takes a slot, waiting up to the target queue time. Returns false if the call is shed. */
+  public boolean tryAcquire() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      long remaining = targetQueueNanos;
+      while (inFlight >= limit) {
+        if (remaining <= 0) {
+          backOff();
+          return false;
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      inFlight++;
+      // saturated, yet queueing stayed well under target and latency is steady → probe for more
+      if (inFlight == limit
+          && remaining > targetQueueNanos / 2
+          && limit < maxLimit
+          && !congested()) {
+        limit++;
+        released.signal();
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Returns a slot taken by a successful {@link #tryAcquire()}, with how long the call took. */
+  public void release(long latencyNanos) {
+    lock.lock();
+    try {
+      inFlight--;
+      sample(latencyNanos);
+      if (congested()) backOff();
+      released.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  private void sample(long latencyNanos) {
+    if (shortLatency == 0) {
+      shortLatency = baselineLatency = Math.max(1, latencyNanos);
+      return;
+    }
+    shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+    baselineLatency =
+        Math.min(shortLatency, baselineLatency + (latencyNanos - baselineLatency) / LONG_WINDOW);
+  }
+
+  private boolean congested() {
+    return shortLatency > baselineLatency * latencyTolerance;
+  }
+
+  private void backOff() {
+    long now = System.nanoTime();
+    if (now - lastBackoff < targetQueueNanos) return;
+    lastBackoff = now;
+    limit = Math.max(minLimit, (int) (limit * BACKOFF));
+  }
+}
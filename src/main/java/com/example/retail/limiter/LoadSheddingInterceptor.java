@@ -0,0 +1,83 @@
+package com.example.retail.limiter;
+
+import com.example.retail.exception.ServiceOverloadedException;
+import com.example.retail.rules.DecisionTableManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Guards the discount endpoint with {@link AdaptiveConcurrencyLimiter} and records request latency
+ * tagged with whether a rule reload overlapped the request, so reload impact shows up in
+ * {@code /actuator/metrics/loyalty.discount.requests?tag=reloading:true}.
+ */
+@Component
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+  private static final String START = LoadSheddingInterceptor.class.getName() + ".start";
+  private static final String RELOADING = LoadSheddingInterceptor.class.getName() + ".reloading";
+
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final DecisionTableManager rules;
+  private final long retryAfterSeconds;
+  private final Timer duringReload;
+  private final Timer steady;
+  private final Counter shed;
+
+  public LoadSheddingInterceptor(
+      AdaptiveConcurrencyLimiter limiter,
+      DecisionTableManager rules,
+      MeterRegistry registry,
+      @Value("${limiter.retry-after-seconds:1}") long retryAfterSeconds) {
+    this.limiter = limiter;
+    this.rules = rules;
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.duringReload = requestTimer(registry, true);
+    this.steady = requestTimer(registry, false);
+    this.shed = registry.counter("loyalty.discount.shed");
+    Gauge.builder(
+            "loyalty.discount.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+        .register(registry);
+    Gauge.builder(
+            "loyalty.discount.concurrency.in-flight",
+            limiter,
+            AdaptiveConcurrencyLimiter::getInFlight)
+        .register(registry);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler)
+      throws Exception {
+    if (!limiter.tryAcquire()) {
+      shed.increment();
+      throw new ServiceOverloadedException("Service overloaded, retry later", retryAfterSeconds);
+    }
+    req.setAttribute(START, System.nanoTime());
+    req.setAttribute(RELOADING, rules.isReloading());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest req, HttpServletResponse res, Object handler, Exception ex) {
+    long elapsed = System.nanoTime() - (long) req.getAttribute(START);
+    limiter.release(elapsed);
+    boolean reloading = (boolean) req.getAttribute(RELOADING) || rules.isReloading();
+    (reloading ? duringReload : steady).record(elapsed, TimeUnit.NANOSECONDS);
+  }
+
+  private static Timer requestTimer(MeterRegistry registry, boolean reloading) {
+    return Timer.builder("loyalty.discount.requests")
+        .description("Discount request latency, split by whether a rule reload was in progress")
+        .tag("reloading", String.valueOf(reloading))
+        .publishPercentiles(0.5, 0.99)
+        .register(registry);
+  }
+}
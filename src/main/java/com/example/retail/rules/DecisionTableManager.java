@@ -1,12 +1,35 @@
 package com.example.retail.rules;
 
+import com.example.retail.exception.RuleVersionNotFoundException;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Cell;
@@ -16,12 +39,12 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.drools.decisiontable.SpreadsheetCompiler;
 import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieFileSystem;
 import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
 import org.kie.api.builder.Results;
-import org.kie.api.io.ResourceType;
-import org.kie.internal.utils.KieHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +55,6 @@ import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 @Component
@@ -53,11 +75,36 @@ public class DecisionTableManager {
   @Value("${rules.poll-ms}")
   private long pollMs;
 
+  // serve: poll and hot-reload; publish: only RulePublisherRunner uses this bean
+  @Value("${rules.mode:serve}")
+  private String mode;
+
+  @Value("${rules.zone:UTC}")
+  private ZoneId zone = ZoneOffset.UTC;
+
   private final S3Client s3;
+  private final RuleCompileExecutor compiler;
+  private final RuleHistory history;
+  private final RuleArtifactStore artifacts;
+  private final Clock clock;
 
   @Autowired
-  public DecisionTableManager(S3Client s3) {
+  public DecisionTableManager(
+      S3Client s3, RuleCompileExecutor compiler, RuleHistory history, RuleArtifactStore artifacts) {
+    this(s3, compiler, history, artifacts, Clock.systemUTC());
+  }
+
+  DecisionTableManager(
+      S3Client s3,
+      RuleCompileExecutor compiler,
+      RuleHistory history,
+      RuleArtifactStore artifacts,
+      Clock clock) {
     this.s3 = s3;
+    this.compiler = compiler;
+    this.history = history;
+    this.artifacts = artifacts;
+    this.clock = clock;
   }
 
   // Validation
@@ -65,161 +112,536 @@ public class DecisionTableManager {
 
   private static final List<ColRule> RULES =
       List.of(
+          new ColRule(
+              0,
+              Pattern.compile("^[A-Za-z0-9_.-]+$"),
+              "Rule name must be letters, digits, '_', '-' or '.'"),
           new ColRule(1, Pattern.compile("^[A-Z]{2}$"), "Country code must be 2-letter"),
           new ColRule(2, Pattern.compile("^[A-Z]{2,3}$"), "State code must be 2 or 3-letter"),
           new ColRule(3, Pattern.compile("^[A-Z]{3}$"), "City code must be 3-letter"),
           new ColRule(4, Pattern.compile("^[A-Z]{3}$"), "Loyalty code must be 3-letter"),
-          new ColRule(5, Pattern.compile("^\\d{1,2}$"), "Loyalty period must be 1 to 2 digits"));
+          new ColRule(
+              5,
+              Pattern.compile("^\\d{1,2}(-\\d{1,2})?$"),
+              "Loyalty period must be 1 to 2 digits, or a range such as 3-5"));
   private static final int DATA_START = 9;
+  private static final Pattern PERIOD_RANGE = Pattern.compile("^(\\d{1,2})-(\\d{1,2})$");
+
+  // LoyaltyDrl reads fixed columns, so the RuleTable header and column keywords must match them.
+  // Import, object type and template text are not compiled and are left as the sheet has them.
+  private static final int RULE_TABLE_ROW = 4;
+  private static final int KEYWORD_ROW = 5;
+  private static final List<String> KEYWORDS =
+      List.of(
+          "NAME",
+          "CONDITION",
+          "CONDITION",
+          "CONDITION",
+          "CONDITION",
+          "CONDITION",
+          "ACTION",
+          "ACTION",
+          ""); // nothing past column H
   private static final DataFormatter FMT = new DataFormatter();
 
+  // …-2025-07-06.xlsx (start of day) or …-2025-07-06T09-30.xlsx, in rules.zone
+  private static final Pattern EFFECTIVE =
+      Pattern.compile("(\\d{4}-\\d{2}-\\d{2})(?:T(\\d{2})-?(\\d{2}))?\\.xlsx$");
+
+  // a version that failed to stage is retried after 1, 2, 4 … minutes, at most every 30
+  private static final Duration RETRY_MIN = Duration.ofMinutes(1);
+  private static final Duration RETRY_MAX = Duration.ofMinutes(30);
+
   // Compiled cache for rule sheet
   private final AtomicReference<KieBase> current = new AtomicReference<>();
+  private final AtomicLong builds = new AtomicLong(); // unique ReleaseId per KieBase build
   private volatile String lastETag;
+  private volatile boolean reloading;
+
+  // Effective-dated versions by key; upcoming ones are compiled ahead and cut over on schedule
+  private final Map<String, RuleVersion> versions = new ConcurrentHashMap<>();
+  private RuleVersion chosen; // the version the schedule has chosen; guarded by this
+  private KieBase scheduled; // what the poll/schedule would serve; guarded by this
+  private String scheduledETag; // guarded by this
+  private String scheduledKey; // guarded by this
+  private String pinned; // ETag an admin pinned, or null; guarded by this
+  private String promotedKey;
+  private String promotedETag;
+  private final ScheduledExecutorService cutovers =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "rule-cutover");
+            t.setDaemon(true);
+            return t;
+          });
 
   public KieBase getKieBase() {
     return current.get();
   }
 
+  /** True while a changed sheet is being downloaded, validated and compiled. */
+  public boolean isReloading() {
+    return reloading;
+  }
+
+  /** Effective-dated versions found under the prefix, ordered by effective time. */
+  public List<RuleVersion> getSchedule() {
+    return versions.values().stream()
+        .sorted(Comparator.comparing(RuleVersion::effectiveAt))
+        .toList();
+  }
+
+  /** Compiled versions held for rollback, most recently activated first. */
+  public List<RuleHistory.CompiledVersion> getHistory() {
+    return history.list();
+  }
+
+  /** ETag of the version an admin pinned, or null when the schedule is in control. */
+  public synchronized String getPinned() {
+    return pinned;
+  }
+
+  /**
+   * Serves a held version immediately and pins it, so polls and scheduled cutovers keep compiling
+   * and staging but do not replace it until {@link #unpin()}.
+   */
+  public synchronized RuleHistory.CompiledVersion activate(String eTag) {
+    RuleHistory.CompiledVersion v =
+        history
+            .get(eTag)
+            .orElseThrow(
+                () -> new RuleVersionNotFoundException("No compiled rule version " + eTag));
+    current.set(v.base());
+    pinned = v.etag();
+    history.pin(pinned);
+    history.add(v.etag(), v.key(), v.base(), clock.instant());
+    markChosen();
+    log.warn("Pinned rules to {} ({})", v.etag(), v.key());
+    return v;
+  }
+
+  /** Hands control back to the schedule, serving whatever it has chosen meanwhile. */
+  public synchronized void unpin() {
+    if (pinned == null) return;
+    log.warn("Unpinned rules from {}", pinned);
+    pinned = null;
+    history.pin(null);
+    if (scheduled != null) serveScheduled();
+    markChosen();
+  }
+
   // init & poll
   @PostConstruct
   public void init() {
+    if ("publish".equals(mode)) return;
     reloadIfChanged();
   }
 
+  @PreDestroy
+  public void shutdown() {
+    cutovers.shutdownNow();
+  }
+
   @Scheduled(fixedDelayString = "${rules.poll-ms}")
   public void reloadIfChanged() {
+    if ("publish".equals(mode)) return;
+    List<S3Object> objects;
     try {
-      promoteNewestToAlias();
+      objects = s3.listObjectsV2(r -> r.bucket(bucket).prefix(prefix)).contents();
+    } catch (Exception ex) {
+      log.error("Listing {} failed; keeping previous base", prefix, ex);
+      return;
+    }
+    Instant now = clock.instant();
+    refreshVersions(objects);
+    reloadActive(objects, now);
+    stageUpcoming(now);
+  }
+
+  private void reloadActive(List<S3Object> objects, Instant now) {
+    try {
+      Promotion p = promoteToAlias(objects, now);
       HeadObjectResponse head = s3.headObject(h -> h.bucket(bucket).key(aliasKey));
       if (Objects.equals(lastETag, head.eTag())) {
         log.info("No change in rule sheet");
         return; // no change
       }
 
-      byte[] bytes;
-      try (ResponseInputStream<GetObjectResponse> in =
-          s3.getObject(g -> g.bucket(bucket).key(aliasKey))) {
-        bytes = in.readAllBytes();
+      // compiled ahead of time, or still held from an earlier activation
+      KieBase ready = p.due() != null ? p.due().base() : null;
+      if (ready == null && p.eTag() != null) {
+        ready = history.get(p.eTag()).map(RuleHistory.CompiledVersion::base).orElse(null);
+      }
+      if (ready != null) {
+        swap(p.due(), p.key(), p.eTag(), ready, head.eTag());
+        return;
       }
 
-      validateSheets(bytes);
-      compileSheetsAsDrl(bytes); // sets current on success
-      lastETag = head.eTag();
-      log.info("Rules hot-reloaded from {}", aliasKey);
+      reloading = true;
+      KieBase base = load(p.key(), p.eTag()); // by source key: artifacts are published beside it
+      if (swap(p.due(), p.key(), p.eTag(), base, head.eTag())) {
+        log.info("Rules hot-reloaded from {}", p.key());
+      }
 
     } catch (Exception ex) {
       log.error("Rule reload failed; keeping previous base", ex);
+    } finally {
+      reloading = false;
     }
   }
 
-  // promote newest file by prefix → alias key
-  private void promoteNewestToAlias() {
-    ListObjectsV2Response list = s3.listObjectsV2(r -> r.bucket(bucket).prefix(prefix));
+  /** The upload promoted to the alias; {@code due} is null when the prefix is undated. */
+  private record Promotion(RuleVersion due, String key, String eTag) {}
+
+  // promote the version due now (latest effective date ≤ now) → alias key; undated prefixes fall
+  // back to the newest upload that is not dated in the future
+  private Promotion promoteToAlias(List<S3Object> objects, Instant now) {
+    RuleVersion due =
+        versions.values().stream()
+            .filter(v -> !v.effectiveAt().isAfter(now))
+            .max(Comparator.comparing(RuleVersion::effectiveAt))
+            .orElse(null);
+    if (due != null) {
+      copyToAlias(due.key(), due.eTag());
+      return new Promotion(due, due.key(), due.eTag());
+    }
 
     S3Object newest =
-        list.contents().stream().max(Comparator.comparing(S3Object::lastModified)).orElse(null);
-    if (newest == null) throw new IllegalStateException("No rule files under " + prefix);
+        objects.stream()
+            .filter(o -> o.key().endsWith(".xlsx")) // not published artifacts
+            .filter(
+                o -> {
+                  Instant at = effectiveAt(o.key());
+                  return at == null || !at.isAfter(now); // staged, not served, until due
+                })
+            .max(Comparator.comparing(S3Object::lastModified))
+            .orElse(null);
+    if (newest == null) throw new IllegalStateException("No rule file in effect under " + prefix);
+
+    copyToAlias(newest.key(), newest.eTag());
+    return new Promotion(null, newest.key(), newest.eTag());
+  }
 
-    if (!newest.key().equals(aliasKey)) {
-      s3.copyObject(c -> c.copySource(bucket + "/" + newest.key()).bucket(bucket).key(aliasKey));
-      log.info("Promoted {} → {}", newest.key(), aliasKey);
+  // copies only when the promoted upload changed, so a steady poll leaves the alias alone
+  private void copyToAlias(String key, String eTag) {
+    if (key.equals(aliasKey) || (key.equals(promotedKey) && Objects.equals(eTag, promotedETag))) {
+      return;
     }
+    s3.copyObject(c -> c.copySource(bucket + "/" + key).bucket(bucket).key(aliasKey));
+    promotedKey = key;
+    promotedETag = eTag;
+    log.info("Promoted {} → {}", key, aliasKey);
   }
 
-  private void validateSheets(byte[] bytes) throws IOException, InvalidFormatException {
-    try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
-      StringBuilder err = new StringBuilder();
-      for (int s = 0; s < wb.getNumberOfSheets(); s++) {
-        Sheet sheet = wb.getSheetAt(s);
-        if (!isRuleSheet(sheet)) {
-          log.info("Skipping non-rule sheet {}", sheet.getSheetName());
-          continue; // ← ignore “Master”
-        }
-        for (Row row : sheet) {
-          if (row.getRowNum() < DATA_START) continue;
-          for (ColRule rule : RULES) {
-            String txt = cell(row, rule.col()).trim();
-            if (!rule.regex().matcher(txt).matches()) {
-              err.append("Sheet ")
-                  .append(sheet.getSheetName())
-                  .append(" – Row ")
-                  .append(row.getRowNum() + 1)
-                  .append(" Col ")
-                  .append((char) ('A' + rule.col()))
-                  .append(" → ")
-                  .append(rule.err)
-                  .append(" [\"")
-                  .append(txt)
-                  .append("\"]\n");
-            }
-          }
-        }
+  // track dated keys; a re-uploaded or deleted key drops whatever was staged for it
+  private void refreshVersions(List<S3Object> objects) {
+    Set<String> listed = new HashSet<>();
+    for (S3Object o : objects) {
+      if (o.key().equals(aliasKey)) continue;
+      Instant at = effectiveAt(o.key());
+      if (at == null) continue;
+      listed.add(o.key());
+
+      RuleVersion known = versions.get(o.key());
+      if (known == null || !Objects.equals(known.eTag(), o.eTag())) {
+        if (known != null) known.cancel();
+        versions.put(o.key(), new RuleVersion(o.key(), o.eTag(), at));
       }
-      if (err.length() > 0) throw new IllegalStateException("Validation errors:\n" + err);
     }
+    versions
+        .values()
+        .removeIf(
+            v -> {
+              boolean keep = listed.contains(v.key()) || v.status() == RuleVersion.Status.ACTIVE
+                      || v.status() == RuleVersion.Status.HELD;
+              if (!keep) v.cancel();
+              return !keep;
+            });
   }
 
-  // compile XLSX ➜ DRL ➜ KieBase
-  private void compileSheetsAsDrl(byte[] bytes) throws IOException, InvalidFormatException {
-    SpreadsheetCompiler sc = new SpreadsheetCompiler();
-    KieHelper helper = new KieHelper();
+  // compile upcoming versions now so their cutover is a reference swap
+  private void stageUpcoming(Instant now) {
+    for (RuleVersion v : getSchedule()) {
+      if (!v.effectiveAt().isAfter(now) || !v.readyToStage(now)) continue;
+      try {
+        reloading = true;
+        KieBase base = load(v.key(), v.eTag());
+        v.stage(base);
+        long delay = Duration.between(clock.instant(), v.effectiveAt()).toMillis();
+        v.scheduleCutover(
+            cutovers.schedule(() -> cutOver(v), Math.max(0, delay), TimeUnit.MILLISECONDS));
+        log.info("Staged {} for {}", v.key(), v.effectiveAt());
+      } catch (Exception ex) {
+        Duration backoff = RETRY_MIN.multipliedBy(1L << Math.min(v.failures(), 5));
+        if (backoff.compareTo(RETRY_MAX) > 0) backoff = RETRY_MAX;
+        v.fail(ex.getMessage(), clock.instant().plus(backoff));
+        log.error(
+            "Staging {} failed (attempt {}); retrying after {}",
+            v.key(),
+            v.failures(),
+            v.retryAt(),
+            ex);
+      } finally {
+        reloading = false;
+      }
+    }
+  }
 
-    String pkg = detectRuleSet(bytes);
+  private void cutOver(RuleVersion v) {
+    KieBase base = v.base();
+    if (v.status() != RuleVersion.Status.STAGED || base == null) return;
+    if (swap(v, v.key(), v.eTag(), base, null)) {
+      log.info("Cut over to {} effective {}", v.key(), v.effectiveAt());
+    }
+  }
 
-    helper.addContent(
-        "package "
-            + pkg
-            + ";\n"
-            + "global com.example.retail.generated.model.LoyaltyResponse response;\n",
-        ResourceType.DRL);
+  // the schedule's only way to change current; never lets an older effective version replace a
+  // newer one, and while pinned only records what should serve once unpinned
+  private synchronized boolean swap(
+      RuleVersion v, String key, String eTag, KieBase base, String aliasETag) {
+    if (v != null && chosen != null && v.effectiveAt().isBefore(chosen.effectiveAt())) {
+      log.info("Not activating {}; {} is already chosen", v.key(), chosen.key());
+      return false;
+    }
+    scheduled = base;
+    scheduledETag = eTag;
+    scheduledKey = key;
+    if (pinned == null) serveScheduled();
+    else log.info("Rules pinned to {}; holding {} until unpinned", pinned, key);
+    if (aliasETag != null) lastETag = aliasETag;
+    if (chosen != null && chosen != v) chosen.supersede();
+    chosen = v;
+    markChosen();
+    return true;
+  }
 
-    try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
-      for (int s = 0; s < wb.getNumberOfSheets(); s++) {
-        Sheet sheet = wb.getSheetAt(s);
-        if (!isRuleSheet(sheet)) {
-          log.info("Skipping non-rule sheet {}", sheet.getSheetName());
-          continue;
-        }
-        String sheetName = wb.getSheetName(s);
-        SpreadsheetCompiler compiler = new SpreadsheetCompiler();
-        ByteArrayInputStream sheetStream = new ByteArrayInputStream(bytes);
-        String drl = compiler.compile(sheetStream, sheetName);
+  // the chosen version is ACTIVE only while it is actually serving
+  private void markChosen() {
+    if (chosen == null) return;
+    boolean serving = pinned == null || pinned.equals(RuleHistory.id(chosen.eTag()));
+    if (serving) chosen.activate(scheduled);
+    else chosen.hold(scheduled);
+  }
 
-        if (drl != null && !drl.trim().isEmpty()) {
-          helper.addContent(drl, ResourceType.DRL);
-        }
+  // only versions that actually went live are kept for rollback; guarded by this
+  private void serveScheduled() {
+    current.set(scheduled);
+    history.add(scheduledETag, scheduledKey, scheduled, clock.instant());
+  }
+
+  /** Effective instant encoded at the end of a key, or null if it carries none. */
+  Instant effectiveAt(String key) {
+    Matcher m = EFFECTIVE.matcher(key);
+    if (!m.find()) return null;
+    try {
+      LocalDate day = LocalDate.parse(m.group(1));
+      LocalDateTime at =
+          m.group(2) == null
+              ? day.atStartOfDay()
+              : day.atTime(Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)));
+      return at.atZone(zone).toInstant();
+    } catch (DateTimeException ex) {
+      log.warn("Ignoring unparseable effective date in {}", key);
+      return null;
+    }
+  }
+
+  private byte[] download(String key) throws IOException {
+    try (ResponseInputStream<GetObjectResponse> in =
+        s3.getObject(g -> g.bucket(bucket).key(key))) {
+      return in.readAllBytes();
+    }
+  }
+
+  // precompiled DRL bundle when one was published for this exact file, else the XLSX itself
+  private KieBase load(String key, String eTag) throws Exception {
+    Optional<List<String>> published = artifacts.load(key, eTag);
+    if (published.isPresent()) {
+      log.info("Using precompiled rule artifact for {}", key);
+      return buildKieBase(published.get());
+    }
+    return buildKieBase(compileSheetsAsDrl(download(key)));
+  }
+
+  /**
+   * Validates and compiles {@code key} once, then uploads its DRL bundle and manifest beside it so
+   * serving nodes can skip XLSX parsing.
+   */
+  public RuleArtifactStore.Manifest publish(String key) throws Exception {
+    String eTag;
+    byte[] bytes;
+    try (ResponseInputStream<GetObjectResponse> in =
+        s3.getObject(g -> g.bucket(bucket).key(key))) {
+      eTag = in.response().eTag();
+      bytes = in.readAllBytes();
+    }
+    List<String> drls = compileSheetsAsDrl(bytes);
+    buildKieBase(drls); // never publish a bundle that does not build
+    return artifacts.publish(key, eTag, drls);
+  }
+
+  // one sheet: RuleSet package, layout and column rules; returns its errors, empty when clean
+  private static String validateSheet(SheetText sheet) {
+    StringBuilder err = new StringBuilder();
+    if (sheet.cell(0, 1).isEmpty()) error(err, sheet, 0, 1, "RuleSet value blank", "");
+    validateLayout(sheet, err);
+    for (int r = DATA_START; r < sheet.rows().size(); r++) {
+      if (sheet.rows().get(r) == null) continue;
+      for (ColRule rule : RULES) {
+        String txt = sheet.cell(r, rule.col());
+        if (!rule.regex().matcher(txt).matches()) error(err, sheet, r, rule.col(), rule.err(), txt);
+      }
+      Matcher range = PERIOD_RANGE.matcher(sheet.cell(r, LoyaltyDrl.PERIOD));
+      if (range.matches() && Integer.parseInt(range.group(1)) > Integer.parseInt(range.group(2))) {
+        error(err, sheet, r, LoyaltyDrl.PERIOD, "Loyalty period range is empty", range.group());
+      }
+    }
+    return err.toString();
+  }
+
+  // the RuleTable header and column keywords must match the columns LoyaltyDrl compiles
+  private static void validateLayout(SheetText sheet, StringBuilder err) {
+    String header = sheet.cell(RULE_TABLE_ROW, 0);
+    if (!header.startsWith("RuleTable")) {
+      error(err, sheet, RULE_TABLE_ROW, 0, "Expected RuleTable header", header);
+    }
+    for (int c = 0; c < KEYWORDS.size(); c++) {
+      String txt = sheet.cell(KEYWORD_ROW, c);
+      if (!txt.equalsIgnoreCase(KEYWORDS.get(c))) {
+        error(err, sheet, KEYWORD_ROW, c, "Expected [\"" + KEYWORDS.get(c) + "\"]", txt);
       }
     }
+  }
 
-    Results res = helper.verify();
-    if (res.hasMessages(Message.Level.ERROR)) {
-      res.getMessages(Message.Level.ERROR)
-          .forEach(m -> log.info("Rule compile error: {}", m.getText()));
-      throw new IllegalStateException("DRL compile failed");
+  // rule names are unique across the workbook, not just within a sheet
+  private static String duplicateNames(List<SheetText> sheets) {
+    StringBuilder err = new StringBuilder();
+    Map<String, String> names = new HashMap<>(); // rule name ➜ where it was first used
+    for (SheetText sheet : sheets) {
+      for (int r = DATA_START; r < sheet.rows().size(); r++) {
+        String name = sheet.cell(r, LoyaltyDrl.NAME);
+        if (sheet.rows().get(r) == null || name.isEmpty()) continue;
+        String first = names.putIfAbsent(name, sheet.name() + " row " + (r + 1));
+        if (first != null) error(err, sheet, r, LoyaltyDrl.NAME, "Duplicate of " + first, name);
+      }
     }
-    current.set(helper.build());
+    return err.toString();
   }
 
-  // detect RuleSet package
-  private String detectRuleSet(byte[] bytes) throws IOException, InvalidFormatException {
+  private static void error(
+      StringBuilder err, SheetText sheet, int row, int col, String msg, String txt) {
+    err.append("Sheet ")
+        .append(sheet.name())
+        .append(" – Row ")
+        .append(row + 1)
+        .append(" Col ")
+        .append((char) ('A' + col))
+        .append(" → ")
+        .append(msg)
+        .append(" [\"")
+        .append(txt)
+        .append("\"]\n");
+  }
+
+  // XLSX ➜ cell text (one task: POI parses the whole workbook), then validation and DRL as one
+  // task per sheet, so compile threads yield between sheets; all on the compile pool
+  private List<String> compileSheetsAsDrl(byte[] bytes) throws Exception {
+    List<SheetText> sheets = compiler.run(() -> readRuleSheets(bytes));
+
+    List<Future<String>> checks = new ArrayList<>();
+    for (SheetText sheet : sheets) {
+      checks.add(compiler.submit(() -> validateSheet(sheet)));
+    }
+    StringBuilder err = new StringBuilder();
+    for (Future<String> f : checks) {
+      err.append(RuleCompileExecutor.await(f));
+    }
+    err.append(duplicateNames(sheets));
+    if (err.length() > 0) throw new IllegalStateException("Validation errors:\n" + err);
+
+    List<Future<String>> sheetDrls = new ArrayList<>();
+    for (SheetText sheet : sheets) {
+      sheetDrls.add(compiler.submit(() -> LoyaltyDrl.write(sheet.toDrl())));
+    }
+    List<String> drls = new ArrayList<>();
+    for (Future<String> f : sheetDrls) {
+      drls.add(RuleCompileExecutor.await(f));
+    }
+    return drls;
+  }
+
+  // DRL ➜ KieBase on the compile pool, in one Drools build (KieHelper verify + build is two)
+  private KieBase buildKieBase(List<String> drls) throws Exception {
+    return compiler.run(
+        () -> {
+          KieServices ks = KieServices.Factory.get();
+          ReleaseId id =
+              ks.newReleaseId(
+                  "com.example.retail", "loyalty-rules", "1." + builds.incrementAndGet());
+          KieFileSystem kfs = ks.newKieFileSystem().generateAndWritePomXML(id);
+          for (int i = 0; i < drls.size(); i++) {
+            kfs.write(String.format("src/main/resources/rules/sheet-%03d.drl", i), drls.get(i));
+          }
+          ClassLoader cl = LoyaltyFact.class.getClassLoader();
+          Results res = ks.newKieBuilder(kfs, cl).buildAll().getResults();
+          if (res.hasMessages(Message.Level.ERROR)) {
+            res.getMessages(Message.Level.ERROR)
+                .forEach(m -> log.info("Rule compile error: {}", m.getText()));
+            throw new IllegalStateException("DRL compile failed");
+          }
+          try {
+            return ks.newKieContainer(id, cl).getKieBase();
+          } finally {
+            ks.getRepository().removeKieModule(id); // the container keeps what it needs
+          }
+        });
+  }
+
+  // trimmed text of columns A..I of every rule sheet, by row number (null where the file has no
+  // row), so validation and DRL generation need no POI and can run per sheet
+  private record SheetText(String name, List<String[]> rows) {
+
+    String cell(int row, int col) {
+      String[] r = row < rows.size() ? rows.get(row) : null;
+      return r == null ? "" : r[col];
+    }
+
+    LoyaltyDrl.Sheet toDrl() {
+      List<String[]> data = new ArrayList<>();
+      for (int r = DATA_START; r < rows.size(); r++) {
+        if (rows.get(r) != null) data.add(rows.get(r));
+      }
+      return new LoyaltyDrl.Sheet(name, cell(0, 1), data);
+    }
+  }
+
+  private List<SheetText> readRuleSheets(byte[] bytes) throws IOException, InvalidFormatException {
+    List<SheetText> sheets = new ArrayList<>();
     try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
       for (int s = 0; s < wb.getNumberOfSheets(); s++) {
         Sheet sheet = wb.getSheetAt(s);
-        if (!isRuleSheet(sheet)) continue;
-
-        Row r = sheet.getRow(0);
-        String pkg = cell(r, 1).trim();
-        if (pkg.isEmpty())
-          throw new IllegalStateException("RuleSet value blank in sheet " + sheet.getSheetName());
-        return pkg;
+        if (!isRuleSheet(sheet)) {
+          log.info("Skipping non-rule sheet {}", sheet.getSheetName());
+          continue; // ← ignore “Master”
+        }
+        List<String[]> rows = new ArrayList<>();
+        for (Row row : sheet) {
+          while (rows.size() < row.getRowNum()) rows.add(null);
+          String[] cells = new String[KEYWORDS.size()];
+          for (int c = 0; c < cells.length; c++) cells[c] = cell(row, c).trim();
+          rows.add(cells);
+        }
+        sheets.add(new SheetText(sheet.getSheetName(), rows));
       }
-      throw new IllegalStateException("No rule sheets with RuleSet header found");
     }
+    if (sheets.isEmpty())
+      throw new IllegalStateException("No rule sheets with RuleSet header found");
+    return sheets;
   }
 
   // cell helper
   private static String cell(Row r, int c) {
+    if (r == null) return "";
     Cell x = r.getCell(c, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
     return (x == null)
         ? ""
@@ -0,0 +1,79 @@
+package com.example.retail.rules;
+
+import java.util.List;
+
+/**
+ * Emits DRL for one rule sheet against {@link LoyaltyFact}. The column layout is the one {@code
+ * DecisionTableManager} validates: A rule name, B–E country/state/city/tier codes, F loyalty
+ * period ({@code 3} or a range {@code 3-5}), G USD conversion, H discount percentage. The sheet's
+ * RuleTable header and NAME/CONDITION/ACTION keywords are validated against this layout; its
+ * Import, object type and template text are not used.
+ */
+final class LoyaltyDrl {
+
+  static final int NAME = 0;
+  static final int COUNTRY = 1;
+  static final int STATE = 2;
+  static final int CITY = 3;
+  static final int TIER = 4;
+  static final int PERIOD = 5;
+  static final int USD = 6;
+  static final int DISCOUNT = 7;
+  static final int COLS = 8;
+
+  /** Trimmed cell text of the data rows of one rule sheet. */
+  record Sheet(String name, String ruleSet, List<String[]> rows) {}
+
+  private LoyaltyDrl() {}
+
+  static String write(Sheet sheet) {
+    StringBuilder drl =
+        new StringBuilder()
+            .append("package ")
+            .append(sheet.ruleSet())
+            .append(";\n")
+            .append("import ")
+            .append(LoyaltyFact.class.getName())
+            .append(";\n")
+            .append("global com.example.retail.generated.model.LoyaltyResponse response;\n")
+            .append("// generated from sheet ")
+            .append(sheet.name())
+            .append('\n');
+
+    for (String[] row : sheet.rows()) {
+      drl.append("\nrule \"")
+          .append(escape(row[NAME]))
+          .append("\"\n  when\n    LoyaltyFact(country == ")
+          .append(LoyaltyFact.code(row[COUNTRY]))
+          .append(", state == ")
+          .append(LoyaltyFact.code(row[STATE]))
+          .append(", city == ")
+          .append(LoyaltyFact.code(row[CITY]))
+          .append(", tier == ")
+          .append(LoyaltyFact.code(row[TIER]));
+      appendPeriod(drl, row[PERIOD]);
+      drl.append(")\n  then\n    response.setConversionRateUSD(\"")
+          .append(escape(row[USD]))
+          .append("\");\n    response.setDiscountPercentage(\"")
+          .append(escape(row[DISCOUNT]))
+          .append("\");\nend\n");
+    }
+    return drl.toString();
+  }
+
+  private static void appendPeriod(StringBuilder drl, String period) {
+    int dash = period.indexOf('-');
+    if (dash < 0) {
+      drl.append(", period == ").append(LoyaltyFact.period(period));
+    } else {
+      drl.append(", period >= ")
+          .append(LoyaltyFact.period(period.substring(0, dash)))
+          .append(", period <= ")
+          .append(LoyaltyFact.period(period.substring(dash + 1)));
+    }
+  }
+
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.retail.rules;
+
+import com.example.retail.generated.model.LoyaltyRequest;
+import lombok.Value;
+
+/**
+ * Rule-evaluation view of a {@link LoyaltyRequest}. Codes are packed into ints (see {@link
+ * #code}) and the period is a primitive, so every constraint in the generated DRL is an int
+ * comparison instead of {@code String.equals}.
+ */
+@Value
+public class LoyaltyFact {
+
+  /** Value for a code or period that no rule can match. */
+  public static final int UNKNOWN = -1;
+
+  private static final int MAX_CODE_LEN = 6; // 27^6 < Integer.MAX_VALUE
+
+  int country;
+  int state;
+  int city;
+  int tier;
+  int period;
+
+  /** Builds the fact straight from the request's strings; the fact is the only allocation. */
+  public static LoyaltyFact from(LoyaltyRequest r) {
+    return new LoyaltyFact(
+        code(r.getCountry()),
+        code(r.getState()),
+        code(r.getCity()),
+        code(r.getLoyaltyTier()),
+        period(r.getLoyaltyPeriod()));
+  }
+
+  /** Packs up to six letters A–Z base-27 into an int; anything else is {@link #UNKNOWN}. */
+  public static int code(CharSequence s) {
+    if (s == null || s.isEmpty() || s.length() > MAX_CODE_LEN) return UNKNOWN;
+    int v = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < 'A' || c > 'Z') return UNKNOWN;
+      v = v * 27 + (c - 'A' + 1);
+    }
+    return v;
+  }
+
+  /** Parses a non-negative period of up to nine digits; anything else is {@link #UNKNOWN}. */
+  public static int period(CharSequence s) {
+    if (s == null || s.isEmpty() || s.length() > 9) return UNKNOWN;
+    int v = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') return UNKNOWN;
+      v = v * 10 + (c - '0');
+    }
+    return v;
+  }
+}
@@ -0,0 +1,155 @@
+package com.example.retail.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * Precompiled rule artifacts stored next to their workbook: {@code <name>.drl.zip} holds one DRL
+ * file per rule sheet and {@code <name>.manifest.json} records the source ETag and the bundle's
+ * SHA-256. The manifest is written last, so a bundle is only used once it is complete, and only
+ * for the exact workbook it was built from.
+ */
+@Component
+public class RuleArtifactStore {
+
+  private static final Logger log = LoggerFactory.getLogger(RuleArtifactStore.class);
+
+  static final int FORMAT = 1;
+
+  /** Describes a published DRL bundle. */
+  public record Manifest(
+      int format,
+      String sourceKey,
+      String sourceETag,
+      String artifactKey,
+      String sha256,
+      int sheets,
+      long bytes,
+      String publishedAt) {}
+
+  @Value("${aws.s3.bucket}")
+  private String bucket;
+
+  private final S3Client s3;
+  private final ObjectMapper json = new ObjectMapper();
+
+  @Autowired
+  public RuleArtifactStore(S3Client s3) {
+    this.s3 = s3;
+  }
+
+  public Manifest publish(String key, String eTag, List<String> drls) throws IOException {
+    byte[] zip = zip(drls);
+    Manifest m =
+        new Manifest(
+            FORMAT,
+            key,
+            eTag,
+            artifactKey(key),
+            sha256(zip),
+            drls.size(),
+            zip.length,
+            Instant.now().toString());
+
+    s3.putObject(
+        p -> p.bucket(bucket).key(m.artifactKey()).contentType("application/zip"),
+        RequestBody.fromBytes(zip));
+    s3.putObject(
+        p -> p.bucket(bucket).key(manifestKey(key)).contentType("application/json"),
+        RequestBody.fromBytes(json.writeValueAsBytes(m)));
+    log.info(
+        "Published {} ({} sheets, {} bytes) for {}", m.artifactKey(), m.sheets(), zip.length, key);
+    return m;
+  }
+
+  /** Per-sheet DRL published for this exact workbook, or empty to fall back to the XLSX. */
+  public Optional<List<String>> load(String key, String eTag) {
+    try {
+      Manifest m =
+          json.readValue(
+              s3.getObjectAsBytes(g -> g.bucket(bucket).key(manifestKey(key))).asByteArray(),
+              Manifest.class);
+      if (m.format() != FORMAT || !Objects.equals(m.sourceETag(), eTag)) {
+        log.info("Ignoring rule artifact for {}; it was built from another version", key);
+        return Optional.empty();
+      }
+
+      byte[] zip = s3.getObjectAsBytes(g -> g.bucket(bucket).key(m.artifactKey())).asByteArray();
+      if (!sha256(zip).equals(m.sha256())) {
+        log.warn("Checksum mismatch on {}; falling back to XLSX", m.artifactKey());
+        return Optional.empty();
+      }
+      return Optional.of(unzip(zip));
+
+    } catch (NoSuchKeyException ex) {
+      return Optional.empty(); // never published
+    } catch (Exception ex) {
+      log.warn("Rule artifact for {} unusable; falling back to XLSX", key, ex);
+      return Optional.empty();
+    }
+  }
+
+  static String artifactKey(String key) {
+    return stem(key) + ".drl.zip";
+  }
+
+  static String manifestKey(String key) {
+    return stem(key) + ".manifest.json";
+  }
+
+  private static String stem(String key) {
+    return key.endsWith(".xlsx") ? key.substring(0, key.length() - ".xlsx".length()) : key;
+  }
+
+  private static byte[] zip(List<String> drls) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (int i = 0; i < drls.size(); i++) {
+        zip.putNextEntry(new ZipEntry(String.format("sheet-%03d.drl", i)));
+        zip.write(drls.get(i).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static List<String> unzip(byte[] bytes) throws IOException {
+    List<String> drls = new ArrayList<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+      while (zip.getNextEntry() != null) {
+        drls.add(new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    return drls;
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.retail.rules;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded pool that rule validation and compilation run on, so a reload of a large workbook does
+ * not compete with request threads for every core.
+ *
+ * <p>{@code parallelism} caps how many cores a reload may occupy. {@code cpuBudget} (0..1] is
+ * enforced as a duty cycle between tasks: after a task a worker may not start its next one until
+ * {@code work * (1 - budget) / budget} has passed, counting time it already spent waiting for
+ * work. A single task is never interrupted, so the final KieBase build, which Drools runs as one
+ * task, occupies a full core for its duration; only {@code parallelism} bounds it.
+ *
+ * <p>Workers are created at {@link Thread#MIN_PRIORITY}, which HotSpot on Linux ignores unless
+ * the JVM runs with {@code -XX:ThreadPriorityPolicy=1} (and the privileges that needs).
+ */
+@Component
+public class RuleCompileExecutor {
+
+  private final ThreadPoolExecutor pool;
+  private final double cpuBudget;
+
+  // System.nanoTime() before which a worker may not start its next task; null when nothing owed
+  private final ThreadLocal<Long> resumeAt = new ThreadLocal<>();
+
+  @Autowired
+  public RuleCompileExecutor(
+      @Value("${rules.compile.parallelism:1}") int parallelism,
+      @Value("${rules.compile.cpu-budget:0.5}") double cpuBudget) {
+    if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+    if (cpuBudget <= 0 || cpuBudget > 1)
+      throw new IllegalArgumentException("cpu-budget must be in (0, 1]");
+    this.cpuBudget = cpuBudget;
+
+    AtomicInteger seq = new AtomicInteger();
+    this.pool =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            30,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread t = new Thread(r, "rule-compile-" + seq.incrementAndGet());
+              t.setDaemon(true);
+              t.setPriority(Thread.MIN_PRIORITY);
+              return t;
+            });
+    pool.allowCoreThreadTimeOut(true);
+  }
+
+  /** Queues {@code task} on the compile pool. Must not be called from a compile thread. */
+  public <T> Future<T> submit(Callable<T> task) {
+    return pool.submit(throttled(task));
+  }
+
+  /** Runs {@code task} on the compile pool and waits for its result. */
+  public <T> T run(Callable<T> task) throws Exception {
+    return await(submit(task));
+  }
+
+  /** Waits for a task queued by {@link #submit}, rethrowing its original failure. */
+  public static <T> T await(Future<T> f) throws Exception {
+    try {
+      return f.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) throw cause;
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  private <T> Callable<T> throttled(Callable<T> task) {
+    return () -> {
+      Long due = resumeAt.get();
+      if (due != null) idle(due - System.nanoTime());
+      long start = System.nanoTime();
+      try {
+        return task.call();
+      } finally {
+        long end = System.nanoTime();
+        resumeAt.set(end + (long) ((end - start) * (1 - cpuBudget) / cpuBudget));
+      }
+    };
+  }
+
+  private static void idle(long nanos) throws InterruptedException {
+    if (nanos > 0) TimeUnit.NANOSECONDS.sleep(nanos);
+    else Thread.yield();
+  }
+}
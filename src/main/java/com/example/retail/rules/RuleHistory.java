@@ -0,0 +1,93 @@
+package com.example.retail.rules;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.kie.api.KieBase;
+import org.kie.api.definition.KiePackage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recently activated KieBases keyed by ETag, bounded by version count and by the total number of
+ * compiled rules they hold, so a bad sheet can be rolled back without downloading or compiling
+ * anything. The newest and the pinned entry are never evicted.
+ */
+@Component
+public class RuleHistory {
+
+  /** A compiled rule version held for rollback. */
+  public record CompiledVersion(
+      String etag, String key, Instant activatedAt, int rules, KieBase base) {}
+
+  private final int maxVersions;
+  private final long maxRules;
+  private final Map<String, CompiledVersion> byETag = new LinkedHashMap<>(); // oldest first
+  private long heldRules;
+  private String pinned;
+
+  @Autowired
+  public RuleHistory(
+      @Value("${rules.history.size:5}") int maxVersions,
+      @Value("${rules.history.max-rules:10000}") long maxRules) {
+    if (maxVersions < 1) throw new IllegalArgumentException("rules.history.size must be >= 1");
+    this.maxVersions = maxVersions;
+    this.maxRules = maxRules;
+  }
+
+  /** ETag without the quotes S3 wraps it in, as used in admin URLs. */
+  public static String id(String eTag) {
+    return eTag == null ? null : eTag.replace("\"", "");
+  }
+
+  public synchronized CompiledVersion add(String eTag, String key, KieBase base, Instant at) {
+    String id = id(eTag);
+    remove(id);
+    int count = 0;
+    for (KiePackage p : base.getKiePackages()) count += p.getRules().size();
+    CompiledVersion v = new CompiledVersion(id, key, at, count, base);
+    byETag.put(id, v);
+    heldRules += count;
+
+    Iterator<CompiledVersion> oldest = byETag.values().iterator();
+    while ((byETag.size() > maxVersions || heldRules > maxRules) && oldest.hasNext()) {
+      CompiledVersion old = oldest.next();
+      if (old == v || isPinned(old)) continue;
+      heldRules -= old.rules();
+      oldest.remove();
+    }
+    return v;
+  }
+
+  /** Keeps {@code eTag} from being evicted while it is pinned; {@code null} releases it. */
+  public synchronized void pin(String eTag) {
+    pinned = id(eTag);
+  }
+
+  /** Whether {@code v} is the pinned version; an ETag-less version never is. */
+  public synchronized boolean isPinned(CompiledVersion v) {
+    return pinned != null && pinned.equals(v.etag());
+  }
+
+  public synchronized Optional<CompiledVersion> get(String eTag) {
+    return Optional.ofNullable(byETag.get(id(eTag)));
+  }
+
+  /** Held versions, most recently activated first. */
+  public synchronized List<CompiledVersion> list() {
+    List<CompiledVersion> newestFirst = new ArrayList<>(byETag.values());
+    Collections.reverse(newestFirst);
+    return newestFirst;
+  }
+
+  private void remove(String id) {
+    CompiledVersion old = byETag.remove(id);
+    if (old != null) heldRules -= old.rules();
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.retail.rules;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publisher mode ({@code rules.mode=publish}): validates and compiles each workbook in {@code
+ * rules.publish.keys} once, uploads its precompiled artifact, then exits non-zero if any failed.
+ */
+@Component
+@ConditionalOnProperty(name = "rules.mode", havingValue = "publish")
+public class RulePublisherRunner implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(RulePublisherRunner.class);
+
+  @Value("${rules.publish.keys}")
+  private List<String> keys;
+
+  private final DecisionTableManager decisionTableManager;
+  private final ApplicationContext context;
+
+  public RulePublisherRunner(
+      DecisionTableManager decisionTableManager, ApplicationContext context) {
+    this.decisionTableManager = decisionTableManager;
+    this.context = context;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int failed = 0;
+    for (String key : keys) {
+      try {
+        RuleArtifactStore.Manifest m = decisionTableManager.publish(key.trim());
+        log.info("Published {} → {} (sha256 {})", key, m.artifactKey(), m.sha256());
+      } catch (Exception ex) {
+        failed++;
+        log.error("Publishing {} failed", key, ex);
+      }
+    }
+    int exitCode = failed == 0 ? 0 : 1;
+    System.exit(SpringApplication.exit(context, () -> exitCode));
+  }
+}
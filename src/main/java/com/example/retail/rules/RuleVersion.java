@@ -0,0 +1,123 @@
+package com.example.retail.rules;
+
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+import org.kie.api.KieBase;
+
+/** One effective-dated workbook under the rules prefix and where it is in its lifecycle. */
+public final class RuleVersion {
+
+  public enum Status {
+    /** Upcoming, not compiled yet. */
+    PENDING,
+    /** Upcoming, compiled and waiting for its cutover. */
+    STAGED,
+    /** Currently serving. */
+    ACTIVE,
+    /** Due and compiled, but held back while an admin has pinned another version. */
+    HELD,
+    /** Was active, replaced by a later version. */
+    SUPERSEDED,
+    /** Download, validation or compilation failed; retried on a later poll. */
+    FAILED
+  }
+
+  private final String key;
+  private final String eTag;
+  private final Instant effectiveAt;
+  private volatile Status status = Status.PENDING;
+  private volatile String error;
+  private volatile int failures;
+  private volatile Instant retryAt;
+  private volatile KieBase base;
+  private volatile ScheduledFuture<?> cutover;
+
+  RuleVersion(String key, String eTag, Instant effectiveAt) {
+    this.key = key;
+    this.eTag = eTag;
+    this.effectiveAt = effectiveAt;
+  }
+
+  public String key() {
+    return key;
+  }
+
+  public String eTag() {
+    return eTag;
+  }
+
+  public Instant effectiveAt() {
+    return effectiveAt;
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  public String error() {
+    return error;
+  }
+
+  /** Staging attempts that failed in a row. */
+  public int failures() {
+    return failures;
+  }
+
+  /** When a failed version is next retried, or null. */
+  public Instant retryAt() {
+    return retryAt;
+  }
+
+  /** Upcoming and either never tried or failed with its retry time reached. */
+  boolean readyToStage(Instant now) {
+    return status == Status.PENDING || (status == Status.FAILED && !now.isBefore(retryAt));
+  }
+
+  KieBase base() {
+    return base;
+  }
+
+  // base and status are set before the cutover is scheduled, so an immediate cutover sees them
+  void stage(KieBase base) {
+    this.base = base;
+    this.error = null;
+    this.retryAt = null;
+    this.status = Status.STAGED;
+  }
+
+  void scheduleCutover(ScheduledFuture<?> cutover) {
+    this.cutover = cutover;
+    if (base == null) cutover.cancel(false); // cancelled while it was being scheduled
+  }
+
+  void activate(KieBase base) {
+    this.base = base;
+    this.error = null;
+    this.status = Status.ACTIVE;
+  }
+
+  void hold(KieBase base) {
+    this.base = base;
+    this.error = null;
+    this.status = Status.HELD;
+  }
+
+  void supersede() {
+    this.base = null;
+    this.status = Status.SUPERSEDED;
+  }
+
+  void fail(String error, Instant retryAt) {
+    this.error = error;
+    this.retryAt = retryAt;
+    this.failures++;
+    this.status = Status.FAILED;
+  }
+
+  /** Drops a scheduled cutover, e.g. because the file was re-uploaded or deleted. */
+  void cancel() {
+    ScheduledFuture<?> f = cutover;
+    if (f != null) f.cancel(false);
+    base = null;
+  }
+}
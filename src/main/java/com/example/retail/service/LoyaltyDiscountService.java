@@ -3,6 +3,7 @@ package com.example.retail.service;
 import com.example.retail.exception.NoRuleMatchException;
 import com.example.retail.generated.model.LoyaltyRequest;
 import com.example.retail.generated.model.LoyaltyResponse;
+import com.example.retail.rules.LoyaltyFact;
 import org.kie.api.runtime.KieSession;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.annotation.RequestScope;
@@ -20,7 +21,7 @@ public class LoyaltyDiscountService {
   public LoyaltyResponse fetchLoyaltyDiscount(LoyaltyRequest request) {
     LoyaltyResponse response = new LoyaltyResponse();
     kieSession.setGlobal("response", response);
-    kieSession.insert(request);
+    kieSession.insert(LoyaltyFact.from(request));
     int fired = kieSession.fireAllRules();
     if (fired == 0) {
       throw new NoRuleMatchException("No discount rule found for request");
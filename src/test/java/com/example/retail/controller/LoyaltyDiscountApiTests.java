@@ -10,6 +10,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.retail.generated.model.LoyaltyRequest;
 import com.example.retail.generated.model.LoyaltyResponse;
+import com.example.retail.rules.LoyaltyFact;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.file.Paths;
 import org.junit.jupiter.api.BeforeAll;
@@ -107,7 +108,7 @@ class LoyaltyDiscountApiTests {
           .andExpect(jsonPath("$.conversionRateUSD").value("0.7"))
           .andExpect(jsonPath("$.discountPercentage").value("0.66"));
 
-      verify(kie).insert(body);
+      verify(kie).insert(LoyaltyFact.from(body));
       verify(kie).fireAllRules();
     }
   }
@@ -0,0 +1,74 @@
+package com.example.retail.limiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void shedsOnceQueueingExceedsTargetAndBacksOff() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2, 2, 20, 2.0);
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+
+    assertThat(limiter.tryAcquire()).as("no slot frees within the target").isFalse();
+    assertThat(limiter.getLimit()).isEqualTo(1);
+  }
+
+  @Test
+  void waitingCallerGetsReleasedSlot() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1_000, 2.0);
+    assertThat(limiter.tryAcquire()).isTrue();
+
+    Thread releaser =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(20);
+              } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+              }
+              limiter.release(MS);
+            });
+    releaser.start();
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    releaser.join();
+  }
+
+  @Test
+  void growsWhenSaturatedWithoutQueueing() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10, 2, 50, 2.0);
+
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+
+    assertThat(limiter.getLimit()).isEqualTo(3);
+  }
+
+  @Test
+  void backsOffAndStopsGrowingWhenLatencyRises() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10, 4, 20, 2.0);
+    for (int i = 0; i < 20; i++) {
+      limiter.tryAcquire();
+      limiter.release(MS); // baseline ~1ms
+    }
+    Thread.sleep(30); // past the back-off window
+
+    for (int i = 0; i < AdaptiveConcurrencyLimiter.SHORT_WINDOW; i++) {
+      limiter.tryAcquire();
+      limiter.release(10 * MS); // e.g. a reload competing for CPU
+    }
+    int limit = limiter.getLimit();
+    assertThat(limit).isLessThan(4);
+
+    for (int i = 0; i < limit; i++) limiter.tryAcquire();
+    assertThat(limiter.getLimit()).as("saturated but congested: no growth").isEqualTo(limit);
+  }
+}
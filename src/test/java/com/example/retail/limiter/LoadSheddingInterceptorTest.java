@@ -0,0 +1,53 @@
+package com.example.retail.limiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.retail.controller.LoyaltyDiscountController;
+import com.example.retail.exception.GlobalExceptionHandler;
+import com.example.retail.rules.DecisionTableManager;
+import com.example.retail.service.LoyaltyDiscountService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class LoadSheddingInterceptorTest {
+
+  @Test
+  void shedRequestGets503WithRetryAfter() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, 2.0);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    LoyaltyDiscountService service = mock(LoyaltyDiscountService.class);
+    MockMvc mvc =
+        MockMvcBuilders.standaloneSetup(new LoyaltyDiscountController(service))
+            .addInterceptors(
+                new LoadSheddingInterceptor(
+                    limiter, mock(DecisionTableManager.class), registry, 7))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    assertThat(limiter.tryAcquire()).isTrue(); // the only slot is busy
+
+    mvc.perform(
+            post("/api/loyalty/discount")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {"country":"AU","state":"NSW","city":"SYD",
+                     "loyaltyTier":"BRZ","loyaltyPeriod":"1"}
+                    """))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string("Retry-After", "7"))
+        .andExpect(jsonPath("$.status").value(503));
+
+    verifyNoInteractions(service);
+    assertThat(registry.counter("loyalty.discount.shed").count()).isEqualTo(1);
+  }
+}
@@ -1,25 +1,55 @@
 package com.example.retail.rules;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.retail.config.AwsProps;
+import com.example.retail.exception.RuleVersionNotFoundException;
+import com.example.retail.generated.model.LoyaltyRequest;
+import com.example.retail.generated.model.LoyaltyResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 class DecisionTableManagerTest {
@@ -39,7 +69,15 @@ class DecisionTableManagerTest {
     s3Props.setPrefix("rules/");
     s3Props.setAliasKey("rules/loyalty-discount-rules-latest.xlsx");
 
-    mgr = new DecisionTableManager(s3); // constructor needs (AwsProps,S3Client)
+    // nothing published unless a test says so: every load reads the workbook
+    when(s3.getObjectAsBytes(any(Consumer.class))).thenThrow(NoSuchKeyException.builder().build());
+
+    mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(5, 10_000),
+            new RuleArtifactStore(s3));
   }
 
   @Test
@@ -99,4 +137,545 @@ class DecisionTableManagerTest {
 
     assertThat(mgr.getKieBase()).as("KieBase should be null").isNull();
   }
+
+  @Test
+  void rejectsColumnsThatDoNotMatchGeneratedRules() throws Exception {
+    byte[] xlsx =
+        workbook(
+            wb -> {
+              Sheet au = wb.getSheet("AU");
+              au.getRow(5).getCell(6).setCellValue("CONDITION");
+              au.getRow(5).createCell(8).setCellValue("ACTION");
+            });
+    serveWorkbook(xlsx);
+
+    assertThatThrownBy(() -> mgr.publish("rules/loyalty-discount-rules-2025-07-07.xlsx"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Sheet AU – Row 6 Col G → Expected [\"ACTION\"]")
+        .hasMessageContaining("Sheet AU – Row 6 Col I");
+  }
+
+  @Test
+  void rejectsBlankAndDuplicateRuleNames() throws Exception {
+    byte[] xlsx =
+        workbook(
+            wb -> {
+              wb.getSheet("AU").getRow(10).getCell(0).setCellValue("");
+              wb.getSheet("US").getRow(9).getCell(0).setCellValue("R_AU_0001");
+            });
+    serveWorkbook(xlsx);
+
+    assertThatThrownBy(() -> mgr.publish("rules/loyalty-discount-rules-2025-07-07.xlsx"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Sheet AU – Row 11 Col A → Rule name")
+        .hasMessageContaining("Sheet US – Row 10 Col A → Duplicate of AU row 10");
+  }
+
+  @Test
+  void rejectsPeriodRangeThatCanNeverMatch() throws Exception {
+    serveWorkbook(workbook(wb -> wb.getSheet("IN").getRow(9).getCell(5).setCellValue("5-3")));
+
+    assertThatThrownBy(() -> mgr.publish("rules/loyalty-discount-rules-2025-07-07.xlsx"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(
+            "Sheet IN – Row 10 Col F → Loyalty period range is empty [\"5-3\"]");
+  }
+
+  @Test
+  void parsesEffectiveInstantFromKey() {
+    assertThat(mgr.effectiveAt("rules/loyalty-discount-rules-2025-07-06.xlsx"))
+        .isEqualTo(Instant.parse("2025-07-06T00:00:00Z"));
+    assertThat(mgr.effectiveAt("rules/loyalty-discount-rules-2025-07-06T09-30.xlsx"))
+        .isEqualTo(Instant.parse("2025-07-06T09:30:00Z"));
+    assertThat(mgr.effectiveAt("rules/loyalty-discount-rules-latest.xlsx")).isNull();
+    assertThat(mgr.effectiveAt("rules/loyalty-discount-rules-2025-13-40.xlsx")).isNull();
+  }
+
+  @Test
+  void stagesUpcomingVersionAndCutsOverAtEffectiveTime() throws Exception {
+    Clock clock = Clock.fixed(Instant.parse("2025-07-05T23:59:59.800Z"), ZoneOffset.UTC);
+    mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(5, 10_000),
+            new RuleArtifactStore(s3),
+            clock);
+
+    S3Object today =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-05.xlsx")
+            .eTag("\"v1\"")
+            .lastModified(Instant.now())
+            .build();
+    S3Object tomorrow =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-06.xlsx")
+            .eTag("\"v2\"")
+            .lastModified(Instant.now())
+            .build();
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(ListObjectsV2Response.builder().contents(List.of(today, tomorrow)).build());
+
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv ->
+                new ResponseInputStream<>(
+                    GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(
+                        getClass().getResourceAsStream("/loyalty-rules.xlsx"))));
+
+    mgr.reloadIfChanged();
+    KieBase first = mgr.getKieBase();
+    assertThat(first).as("version effective today is served").isNotNull();
+
+    // cutover is scheduled for 2025-07-06T00:00Z, 200ms after the fixed clock
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (mgr.getSchedule().get(1).status() != RuleVersion.Status.ACTIVE
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertThat(mgr.getSchedule())
+        .extracting(RuleVersion::status)
+        .containsExactly(RuleVersion.Status.SUPERSEDED, RuleVersion.Status.ACTIVE);
+    assertThat(mgr.getKieBase()).isNotNull().isNotSameAs(first);
+  }
+
+  @Test
+  void cutsOverImmediatelyWhenEffectiveTimePassesWhileStaging() throws Exception {
+    MutableClock clock = new MutableClock(Instant.parse("2025-07-05T23:59:59Z"));
+    mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(5, 10_000),
+            new RuleArtifactStore(s3),
+            clock);
+
+    S3Object today =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-05.xlsx")
+            .eTag("\"v1\"")
+            .lastModified(Instant.now())
+            .build();
+    S3Object tomorrow =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-06.xlsx")
+            .eTag("\"v2\"")
+            .lastModified(Instant.now())
+            .build();
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(ListObjectsV2Response.builder().contents(List.of(today, tomorrow)).build());
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv -> {
+              Consumer<GetObjectRequest.Builder> req = inv.getArgument(0);
+              GetObjectRequest.Builder b = GetObjectRequest.builder();
+              req.accept(b);
+              // downloading tomorrow's file takes us past its effective time
+              if (b.build().key().equals(tomorrow.key())) {
+                clock.now = Instant.parse("2025-07-06T00:00:01Z");
+              }
+              return new ResponseInputStream<>(
+                  GetObjectResponse.builder().build(),
+                  AbortableInputStream.create(
+                      getClass().getResourceAsStream("/loyalty-rules.xlsx")));
+            });
+
+    mgr.reloadIfChanged(); // no further poll: the cutover alone must activate tomorrow's file
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (mgr.getSchedule().get(1).status() != RuleVersion.Status.ACTIVE
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertThat(mgr.getSchedule())
+        .extracting(RuleVersion::status)
+        .containsExactly(RuleVersion.Status.SUPERSEDED, RuleVersion.Status.ACTIVE);
+    assertThat(mgr.getKieBase()).isNotNull().isSameAs(mgr.getSchedule().get(1).base());
+  }
+
+  @Test
+  void neverPromotesFutureDatedUploadAsNewestUndatedFile() throws Exception {
+    Clock clock = Clock.fixed(Instant.parse("2025-07-20T12:00:00Z"), ZoneOffset.UTC);
+    mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(5, 10_000),
+            new RuleArtifactStore(s3),
+            clock);
+
+    S3Object undated =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules.xlsx")
+            .eTag("\"u1\"")
+            .lastModified(Instant.parse("2025-07-01T00:00:00Z"))
+            .build();
+    S3Object upcoming =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-08-01.xlsx")
+            .eTag("\"f1\"")
+            .lastModified(Instant.parse("2025-07-20T11:00:00Z"))
+            .build();
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(ListObjectsV2Response.builder().contents(List.of(undated, upcoming)).build());
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv ->
+                new ResponseInputStream<>(
+                    GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(
+                        getClass().getResourceAsStream("/loyalty-rules.xlsx"))));
+
+    mgr.reloadIfChanged();
+
+    ArgumentCaptor<Consumer<CopyObjectRequest.Builder>> copies =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(s3, atLeastOnce()).copyObject(copies.capture());
+    for (Consumer<CopyObjectRequest.Builder> c : copies.getAllValues()) {
+      CopyObjectRequest.Builder b = CopyObjectRequest.builder();
+      c.accept(b);
+      assertThat(b.build().copySource()).endsWith("/rules/loyalty-discount-rules.xlsx");
+    }
+    assertThat(mgr.getKieBase()).isNotNull();
+    assertThat(mgr.getSchedule())
+        .extracting(RuleVersion::status)
+        .containsExactly(RuleVersion.Status.STAGED);
+  }
+
+  @Test
+  void retriesFailedStagingAfterBackoff() throws Exception {
+    MutableClock clock = new MutableClock(Instant.parse("2025-07-05T12:00:00Z"));
+    mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(5, 10_000),
+            new RuleArtifactStore(s3),
+            clock);
+
+    S3Object today =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-05.xlsx")
+            .eTag("\"v1\"")
+            .lastModified(Instant.now())
+            .build();
+    S3Object tomorrow =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-06.xlsx")
+            .eTag("\"v2\"")
+            .lastModified(Instant.now())
+            .build();
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(ListObjectsV2Response.builder().contents(List.of(today, tomorrow)).build());
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+    AtomicInteger tomorrowDownloads = new AtomicInteger();
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv -> {
+              Consumer<GetObjectRequest.Builder> req = inv.getArgument(0);
+              GetObjectRequest.Builder b = GetObjectRequest.builder();
+              req.accept(b);
+              if (b.build().key().equals(tomorrow.key())
+                  && tomorrowDownloads.incrementAndGet() == 1) {
+                throw SdkClientException.create("Connection reset");
+              }
+              return new ResponseInputStream<>(
+                  GetObjectResponse.builder().build(),
+                  AbortableInputStream.create(
+                      getClass().getResourceAsStream("/loyalty-rules.xlsx")));
+            });
+
+    mgr.reloadIfChanged();
+    RuleVersion upcoming = mgr.getSchedule().get(1);
+    assertThat(upcoming.status()).isEqualTo(RuleVersion.Status.FAILED);
+    assertThat(upcoming.error()).contains("Connection reset");
+    assertThat(upcoming.failures()).isEqualTo(1);
+    assertThat(upcoming.retryAt()).isEqualTo(Instant.parse("2025-07-05T12:01:00Z"));
+
+    mgr.reloadIfChanged(); // still backing off
+    assertThat(tomorrowDownloads).hasValue(1);
+    assertThat(upcoming.status()).isEqualTo(RuleVersion.Status.FAILED);
+
+    clock.now = Instant.parse("2025-07-05T12:01:00Z");
+    mgr.reloadIfChanged();
+    assertThat(tomorrowDownloads).hasValue(2);
+    assertThat(upcoming.status()).isEqualTo(RuleVersion.Status.STAGED);
+    assertThat(upcoming.error()).isNull();
+  }
+
+  @Test
+  void rollsBackToHeldVersionAndStaysPinnedUntilUnpinned() throws Exception {
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(listing("\"e1\""), listing("\"e2\""), listing("\"e3\""));
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(
+            HeadObjectResponse.builder().eTag("a1").build(),
+            HeadObjectResponse.builder().eTag("a2").build(),
+            HeadObjectResponse.builder().eTag("a3").build());
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv ->
+                new ResponseInputStream<>(
+                    GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(
+                        getClass().getResourceAsStream("/loyalty-rules.xlsx"))));
+
+    mgr.reloadIfChanged();
+    KieBase v1 = mgr.getKieBase();
+    mgr.reloadIfChanged();
+    KieBase v2 = mgr.getKieBase();
+    assertThat(mgr.getHistory())
+        .extracting(RuleHistory.CompiledVersion::etag)
+        .containsExactly("e2", "e1");
+
+    mgr.activate("e1");
+    assertThat(mgr.getKieBase()).isSameAs(v1);
+    assertThat(mgr.getPinned()).isEqualTo("e1");
+    assertThat(mgr.getSchedule())
+        .as("e2 is chosen by the schedule but no longer serving")
+        .extracting(RuleVersion::status)
+        .containsExactly(RuleVersion.Status.HELD);
+
+    mgr.reloadIfChanged(); // e3 is compiled but must not replace the pinned version
+    assertThat(mgr.getKieBase()).isSameAs(v1);
+    assertThat(mgr.getHistory())
+        .as("only versions that went live are held")
+        .extracting(RuleHistory.CompiledVersion::etag)
+        .containsExactly("e1", "e2");
+    assertThat(mgr.getSchedule())
+        .extracting(RuleVersion::eTag, RuleVersion::status)
+        .containsExactly(tuple("e3", RuleVersion.Status.HELD));
+
+    mgr.unpin();
+    assertThat(mgr.getKieBase()).isNotNull().isNotSameAs(v1).isNotSameAs(v2);
+    assertThat(mgr.getPinned()).isNull();
+    assertThat(mgr.getHistory())
+        .extracting(RuleHistory.CompiledVersion::etag)
+        .containsExactly("e3", "e1", "e2");
+    assertThat(mgr.getSchedule())
+        .extracting(RuleVersion::status)
+        .containsExactly(RuleVersion.Status.ACTIVE);
+
+    assertThatThrownBy(() -> mgr.activate("unknown"))
+        .isInstanceOf(RuleVersionNotFoundException.class);
+  }
+
+  @Test
+  void servesPublishedArtifactWithoutParsingWorkbook() throws Exception {
+    Map<String, byte[]> bucket = publish("\"x1\"");
+    assertThat(bucket)
+        .containsKeys(
+            "rules/loyalty-discount-rules-2025-07-07.drl.zip",
+            "rules/loyalty-discount-rules-2025-07-07.manifest.json");
+
+    // a serving node must get everything from the artifact
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenThrow(new IllegalStateException("workbook must not be downloaded"));
+    when(s3.listObjectsV2(any(Consumer.class))).thenReturn(listing("\"x1\""));
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+
+    mgr.reloadIfChanged();
+
+    assertDiscountForAuBronze(mgr.getKieBase());
+  }
+
+  @Test
+  void servesPublishedArtifactOfUndatedUploadBySourceKey() throws Exception {
+    publish("rules/loyalty-discount-rules.xlsx", "\"u1\"");
+
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenThrow(new IllegalStateException("workbook must not be downloaded"));
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(
+            ListObjectsV2Response.builder()
+                .contents(
+                    S3Object.builder()
+                        .key("rules/loyalty-discount-rules.xlsx")
+                        .eTag("\"u1\"")
+                        .lastModified(Instant.now())
+                        .build())
+                .build());
+    // the alias copy has an ETag of its own; the artifact belongs to the source upload
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+
+    mgr.reloadIfChanged();
+
+    assertDiscountForAuBronze(mgr.getKieBase());
+    assertThat(mgr.getHistory())
+        .extracting(RuleHistory.CompiledVersion::etag, RuleHistory.CompiledVersion::key)
+        .containsExactly(tuple("u1", "rules/loyalty-discount-rules.xlsx"));
+  }
+
+  @Test
+  void fallsBackToWorkbookWhenArtifactIsForAnotherUpload() throws Exception {
+    publish("\"x1\"");
+
+    assertThat(reloadCountingDownloads("\"x2\"")).isEqualTo(1);
+    assertDiscountForAuBronze(mgr.getKieBase());
+  }
+
+  @Test
+  void fallsBackToWorkbookWhenArtifactChecksumDoesNotMatch() throws Exception {
+    Map<String, byte[]> bucket = publish("\"x1\"");
+    byte[] zip = bucket.get("rules/loyalty-discount-rules-2025-07-07.drl.zip");
+    zip[zip.length / 2] ^= 0x01;
+
+    assertThat(reloadCountingDownloads("\"x1\"")).isEqualTo(1);
+    assertDiscountForAuBronze(mgr.getKieBase());
+  }
+
+  @Test
+  void fallsBackToWorkbookWhenNothingWasPublished() throws Exception {
+    assertThat(reloadCountingDownloads("\"x1\"")).isEqualTo(1);
+    assertDiscountForAuBronze(mgr.getKieBase());
+  }
+
+  private Map<String, byte[]> publish(String sourceETag) throws Exception {
+    return publish("rules/loyalty-discount-rules-2025-07-07.xlsx", sourceETag);
+  }
+
+  // publishes the test workbook as uploaded under key with sourceETag into an in-memory bucket
+  private Map<String, byte[]> publish(String key, String sourceETag) throws Exception {
+    Map<String, byte[]> bucket = new HashMap<>();
+    when(s3.putObject(any(Consumer.class), any(RequestBody.class)))
+        .thenAnswer(
+            inv -> {
+              Consumer<PutObjectRequest.Builder> req = inv.getArgument(0);
+              PutObjectRequest.Builder b = PutObjectRequest.builder();
+              req.accept(b);
+              RequestBody body = inv.getArgument(1);
+              bucket.put(
+                  b.build().key(), body.contentStreamProvider().newStream().readAllBytes());
+              return PutObjectResponse.builder().build();
+            });
+    doAnswer(
+            inv -> {
+              Consumer<GetObjectRequest.Builder> req = inv.getArgument(0);
+              GetObjectRequest.Builder b = GetObjectRequest.builder();
+              req.accept(b);
+              byte[] bytes = bucket.get(b.build().key());
+              if (bytes == null) throw NoSuchKeyException.builder().build();
+              return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), bytes);
+            })
+        .when(s3)
+        .getObjectAsBytes(any(Consumer.class)); // replaces the throwing stub from setUp
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenReturn(
+            new ResponseInputStream<>(
+                GetObjectResponse.builder().eTag(sourceETag).build(),
+                AbortableInputStream.create(
+                    getClass().getResourceAsStream("/loyalty-rules.xlsx"))));
+
+    RuleArtifactStore.Manifest m = mgr.publish(key);
+    assertThat(m.sourceETag()).isEqualTo(sourceETag);
+    assertThat(m.sheets()).isEqualTo(3);
+    return bucket;
+  }
+
+  // one poll with the workbook listed under eTag; returns how often the workbook was downloaded
+  private int reloadCountingDownloads(String eTag) throws Exception {
+    AtomicInteger downloads = new AtomicInteger();
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv -> {
+              downloads.incrementAndGet();
+              return new ResponseInputStream<>(
+                  GetObjectResponse.builder().eTag(eTag).build(),
+                  AbortableInputStream.create(
+                      getClass().getResourceAsStream("/loyalty-rules.xlsx")));
+            });
+    when(s3.listObjectsV2(any(Consumer.class))).thenReturn(listing(eTag));
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("a1").build());
+
+    mgr.reloadIfChanged();
+    return downloads.get();
+  }
+
+  private static void assertDiscountForAuBronze(KieBase base) {
+    assertThat(base).isNotNull();
+    LoyaltyResponse response = new LoyaltyResponse();
+    KieSession ks = base.newKieSession();
+    ks.setGlobal("response", response);
+    ks.insert(
+        LoyaltyFact.from(
+            new LoyaltyRequest()
+                .country("AU")
+                .state("NSW")
+                .city("SYD")
+                .loyaltyTier("BRZ")
+                .loyaltyPeriod("1")));
+    assertThat(ks.fireAllRules()).isEqualTo(1);
+    ks.dispose();
+    assertThat(response.getDiscountPercentage()).isEqualTo("0.66");
+  }
+
+  // the test workbook with an edit applied
+  private byte[] workbook(Consumer<Workbook> edit) throws Exception {
+    try (InputStream in = getClass().getResourceAsStream("/loyalty-rules.xlsx");
+        Workbook wb = WorkbookFactory.create(in);
+        ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      edit.accept(wb);
+      wb.write(out);
+      return out.toByteArray();
+    }
+  }
+
+  private void serveWorkbook(byte[] xlsx) {
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenAnswer(
+            inv ->
+                new ResponseInputStream<>(
+                    GetObjectResponse.builder().eTag("\"x1\"").build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(xlsx))));
+  }
+
+  // a clock the test can move forward mid-poll
+  private static final class MutableClock extends Clock {
+    volatile Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  private static ListObjectsV2Response listing(String eTag) {
+    return ListObjectsV2Response.builder()
+        .contents(
+            S3Object.builder()
+                .key("rules/loyalty-discount-rules-2025-07-07.xlsx")
+                .eTag(eTag)
+                .lastModified(Instant.now())
+                .build())
+        .build();
+  }
 }
@@ -0,0 +1,78 @@
+package com.example.retail.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.retail.generated.model.LoyaltyRequest;
+import com.example.retail.generated.model.LoyaltyResponse;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+class LoyaltyDrlTest {
+
+  static KieBase base;
+
+  @BeforeAll
+  static void compile() {
+    String drl =
+        LoyaltyDrl.write(
+            new LoyaltyDrl.Sheet(
+                "AU",
+                "LoyaltyDiscountRules",
+                List.of(
+                    new String[] {"R_1", "AU", "NSW", "SYD", "BRZ", "1", "0.7", "0.66"},
+                    new String[] {"R_2", "AU", "NSW", "SYD", "BRZ", "3-5", "0.7", "0.5"},
+                    new String[] {"R_\"3\"", "AU", "VIC", "MEL", "SIL", "2", "0.7", "0.4"})));
+    base = new KieHelper().addContent(drl, ResourceType.DRL).build();
+  }
+
+  @Test
+  void matchesSinglePeriod() {
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "1")).isEqualTo("0.66");
+  }
+
+  @Test
+  void matchesInsidePeriodRangeInclusive() {
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "3")).isEqualTo("0.5");
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "4")).isEqualTo("0.5");
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "5")).isEqualTo("0.5");
+  }
+
+  @Test
+  void doesNotMatchOutsideRangeOrUnknownCodes() {
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "2")).isNull();
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "6")).isNull();
+    assertThat(discount("AU", "NSW", "SYD", "BRZ", "x")).isNull();
+    assertThat(discount("au", "NSW", "SYD", "BRZ", "1")).isNull();
+  }
+
+  @Test
+  void escapesQuotesInRuleNames() {
+    assertThat(discount("AU", "VIC", "MEL", "SIL", "2")).isEqualTo("0.4");
+  }
+
+  private static String discount(
+      String country, String state, String city, String tier, String period) {
+    LoyaltyResponse response = new LoyaltyResponse();
+    KieSession ks = base.newKieSession();
+    try {
+      ks.setGlobal("response", response);
+      ks.insert(
+          LoyaltyFact.from(
+              new LoyaltyRequest()
+                  .country(country)
+                  .state(state)
+                  .city(city)
+                  .loyaltyTier(tier)
+                  .loyaltyPeriod(period)));
+      ks.fireAllRules();
+    } finally {
+      ks.dispose();
+    }
+    return response.getDiscountPercentage();
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.retail.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.retail.generated.model.LoyaltyRequest;
+import com.example.retail.generated.model.LoyaltyResponse;
+import com.sun.management.ThreadMXBean;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.drools.decisiontable.SpreadsheetCompiler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+import org.mockito.ArgumentMatchers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Per-request allocation and latency of the {@link LoyaltyFact} rules against the sheet's own
+ * {@code LoyaltyRequest} string rules. Excluded from the default build; run with {@code mvn test
+ * -Pbenchmark}.
+ */
+@Tag("benchmark")
+class LoyaltyFactBenchmarkTest {
+
+  private static final Logger log = LoggerFactory.getLogger(LoyaltyFactBenchmarkTest.class);
+
+  private static final int WARMUP = 20_000;
+  private static final int ITERATIONS = 100_000;
+
+  private static final List<LoyaltyRequest> REQUESTS =
+      List.of(
+          request("AU", "NSW", "SYD", "BRZ", "1"),
+          request("IN", "KA", "BLR", "SIL", "1"),
+          request("US", "CA", "LAX", "BRZ", "5"));
+
+  @Test
+  void typedFactVersusStringRequest() throws Exception {
+    byte[] xlsx;
+    try (InputStream in = getClass().getResourceAsStream("/loyalty-rules.xlsx")) {
+      xlsx = in.readAllBytes();
+    }
+    KieBase legacy = legacyBase(xlsx);
+    KieBase typed = typedBase(xlsx);
+
+    LoyaltyResponse au = new LoyaltyResponse();
+    assertThat(evaluate(typed, LoyaltyFact.from(REQUESTS.get(0)), au)).isEqualTo(1);
+    assertThat(au.getConversionRateUSD()).isEqualTo("0.7");
+    assertThat(au.getDiscountPercentage()).isEqualTo("0.66");
+    for (LoyaltyRequest r : REQUESTS) {
+      assertThat(evaluate(legacy, r, new LoyaltyResponse())).isEqualTo(1);
+      assertThat(evaluate(typed, LoyaltyFact.from(r), new LoyaltyResponse())).isEqualTo(1);
+    }
+
+    measure("LoyaltyRequest (String ==)", legacy, r -> r);
+    measure("LoyaltyFact (int ==)", typed, LoyaltyFact::from);
+  }
+
+  private static void measure(String label, KieBase base, Function<LoyaltyRequest, Object> fact) {
+    ThreadMXBean mx = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < WARMUP; i++) {
+      evaluate(base, fact.apply(REQUESTS.get(i % REQUESTS.size())), new LoyaltyResponse());
+    }
+
+    long bytes = mx.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      evaluate(base, fact.apply(REQUESTS.get(i % REQUESTS.size())), new LoyaltyResponse());
+    }
+    long nanos = System.nanoTime() - start;
+    bytes = mx.getCurrentThreadAllocatedBytes() - bytes;
+
+    log.info("{}: {} B/request, {} ns/request", label, bytes / ITERATIONS, nanos / ITERATIONS);
+  }
+
+  // same path as LoyaltyDiscountService
+  private static int evaluate(KieBase base, Object fact, LoyaltyResponse response) {
+    KieSession ks = base.newKieSession();
+    try {
+      ks.setGlobal("response", response);
+      ks.insert(fact);
+      return ks.fireAllRules();
+    } finally {
+      ks.dispose();
+    }
+  }
+
+  // the sheet's CONDITION templates, compiled the way DecisionTableManager used to
+  private static KieBase legacyBase(byte[] xlsx) throws Exception {
+    KieHelper helper = new KieHelper();
+    try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(xlsx))) {
+      for (Sheet sheet : wb) {
+        if (sheet.getRow(0) == null
+            || !"RuleSet".equals(sheet.getRow(0).getCell(0).getStringCellValue())) continue;
+        helper.addContent(
+            new SpreadsheetCompiler()
+                .compile(new ByteArrayInputStream(xlsx), sheet.getSheetName()),
+            ResourceType.DRL);
+      }
+    }
+    return helper.build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static KieBase typedBase(byte[] xlsx) {
+    S3Client s3 = mock(S3Client.class);
+    S3Object key =
+        S3Object.builder()
+            .key("rules/loyalty-discount-rules-2025-07-07.xlsx")
+            .lastModified(Instant.now())
+            .build();
+    when(s3.listObjectsV2(any(Consumer.class)))
+        .thenReturn(
+            ListObjectsV2Response.builder().contents(Collections.singletonList(key)).build());
+    when(s3.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().eTag("v1").build());
+    when(s3.getObjectAsBytes(any(Consumer.class))).thenThrow(NoSuchKeyException.builder().build());
+    when(s3.getObject(ArgumentMatchers.<Consumer<GetObjectRequest.Builder>>any()))
+        .thenReturn(
+            new ResponseInputStream<>(
+                GetObjectResponse.builder().eTag("\"v1\"").build(),
+                AbortableInputStream.create(new ByteArrayInputStream(xlsx))));
+
+    DecisionTableManager mgr =
+        new DecisionTableManager(
+            s3,
+            new RuleCompileExecutor(1, 1.0),
+            new RuleHistory(1, 10_000),
+            new RuleArtifactStore(s3));
+    mgr.reloadIfChanged();
+    return mgr.getKieBase();
+  }
+
+  private static LoyaltyRequest request(
+      String country, String state, String city, String tier, String period) {
+    return new LoyaltyRequest()
+        .country(country)
+        .state(state)
+        .city(city)
+        .loyaltyTier(tier)
+        .loyaltyPeriod(period);
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.retail.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.retail.generated.model.LoyaltyRequest;
+import org.junit.jupiter.api.Test;
+
+class LoyaltyFactTest {
+
+  @Test
+  void packsLettersBase27() {
+    assertThat(LoyaltyFact.code("A")).isEqualTo(1);
+    assertThat(LoyaltyFact.code("AU")).isEqualTo(1 * 27 + 21);
+    assertThat(LoyaltyFact.code("NSW")).isEqualTo((14 * 27 + 19) * 27 + 23);
+    assertThat(LoyaltyFact.code("ZZZZZZ")).isPositive();
+    assertThat(LoyaltyFact.code("AB")).isNotEqualTo(LoyaltyFact.code("BA"));
+    assertThat(LoyaltyFact.code("A")).isNotEqualTo(LoyaltyFact.code("AA"));
+  }
+
+  @Test
+  void rejectsCodesNoRuleCanMatch() {
+    assertThat(LoyaltyFact.code(null)).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.code("")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.code("au")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.code("A1")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.code("ABCDEFG")).isEqualTo(LoyaltyFact.UNKNOWN);
+  }
+
+  @Test
+  void parsesPeriod() {
+    assertThat(LoyaltyFact.period("0")).isZero();
+    assertThat(LoyaltyFact.period("12")).isEqualTo(12);
+    assertThat(LoyaltyFact.period("999999999")).isEqualTo(999_999_999);
+    assertThat(LoyaltyFact.period(null)).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.period("")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.period("-1")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.period("3-5")).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(LoyaltyFact.period("1234567890")).isEqualTo(LoyaltyFact.UNKNOWN);
+  }
+
+  @Test
+  void buildsFactFromRequest() {
+    LoyaltyFact fact =
+        LoyaltyFact.from(
+            new LoyaltyRequest()
+                .country("AU")
+                .state("NSW")
+                .city("SYD")
+                .loyaltyTier("brz")
+                .loyaltyPeriod("4"));
+
+    assertThat(fact.getCountry()).isEqualTo(LoyaltyFact.code("AU"));
+    assertThat(fact.getCity()).isEqualTo(LoyaltyFact.code("SYD"));
+    assertThat(fact.getTier()).isEqualTo(LoyaltyFact.UNKNOWN);
+    assertThat(fact.getPeriod()).isEqualTo(4);
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.retail.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+
+class RuleHistoryTest {
+
+  RuleHistory history = new RuleHistory(2, 10_000);
+
+  @Test
+  void evictsOldestBeyondSize() {
+    add("\"e1\"");
+    add("\"e2\"");
+    add("\"e3\"");
+
+    assertThat(etags()).containsExactly("e3", "e2");
+    assertThat(history.get("e1")).isEmpty();
+  }
+
+  @Test
+  void neverEvictsPinnedVersion() {
+    add("\"e1\"");
+    history.pin("\"e1\"");
+    add("\"e2\"");
+    add("\"e3\"");
+    assertThat(etags()).containsExactly("e3", "e1");
+
+    history.pin(null);
+    add("\"e4\"");
+    assertThat(etags()).containsExactly("e4", "e3");
+  }
+
+  @Test
+  void evictsVersionsWithoutETag() {
+    add(null);
+    assertThat(history.list()).singleElement().matches(v -> !history.isPinned(v));
+
+    add("\"e1\"");
+    add("\"e2\"");
+    assertThat(etags()).containsExactly("e2", "e1");
+  }
+
+  private void add(String eTag) {
+    history.add(
+        eTag, "rules/loyalty-discount-rules-2025-07-07.xlsx", mock(KieBase.class), Instant.now());
+  }
+
+  private List<String> etags() {
+    return history.list().stream().map(RuleHistory.CompiledVersion::etag).toList();
+  }
+}